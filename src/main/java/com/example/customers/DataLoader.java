@@ -1,7 +1,7 @@
 package com.example.customers;
 
 import com.example.customers.model.Customer;
-import com.example.customers.repository.CustomerRepository;
+import com.example.customers.repository.ShardedCustomerRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.stereotype.Component;
@@ -10,7 +10,7 @@ import org.springframework.stereotype.Component;
 @RequiredArgsConstructor
 public class DataLoader implements CommandLineRunner {
 
-    private final CustomerRepository customerRepository;
+    private final ShardedCustomerRepository customerRepository;
 
     @Override
     public void run(String... args) {
@@ -0,0 +1,77 @@
+package com.example.customers.config;
+
+import com.example.customers.sharding.ShardRoutingDataSource;
+import com.example.customers.sharding.SnowflakeIdGenerator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Creates one H2 database per shard and exposes them as a single DataSource that
+ * routes each connection to the shard bound in
+ * {@link com.example.customers.sharding.ShardContext}.
+ */
+@Configuration
+public class ShardingConfig {
+
+    @Value("${customers.sharding.shard-count:4}")
+    private int shardCount;
+
+    @Value("${customers.sharding.url-template}")
+    private String urlTemplate;
+
+    @Value("${spring.datasource.driver-class-name}")
+    private String driverClassName;
+
+    @Value("${spring.datasource.username}")
+    private String username;
+
+    @Value("${spring.datasource.password}")
+    private String password;
+
+    @Bean
+    @Primary
+    public DataSource dataSource() {
+        if (shardCount < 1 || shardCount > SnowflakeIdGenerator.MAX_SHARDS) {
+            throw new IllegalStateException("customers.sharding.shard-count must be between 1 and "
+                    + SnowflakeIdGenerator.MAX_SHARDS + ": " + shardCount);
+        }
+
+        ResourceDatabasePopulator schema = new ResourceDatabasePopulator(new ClassPathResource("db/shard-schema.sql"));
+        Map<Object, Object> shards = new HashMap<>();
+        for (int shard = 0; shard < shardCount; shard++) {
+            DataSource dataSource = DataSourceBuilder.create()
+                    .driverClassName(driverClassName)
+                    .url(String.format(urlTemplate, shard))
+                    .username(username)
+                    .password(password)
+                    .build();
+            schema.execute(dataSource);
+            // Resume each shard's id sequence after ids already stored there.
+            Long maxId = new JdbcTemplate(dataSource).queryForObject("SELECT MAX(id) FROM customers", Long.class);
+            if (maxId != null) {
+                SnowflakeIdGenerator.advancePast(maxId);
+            }
+            shards.put(shard, dataSource);
+        }
+
+        ShardRoutingDataSource routing = new ShardRoutingDataSource();
+        routing.setTargetDataSources(shards);
+        routing.setDefaultTargetDataSource(shards.get(0));
+        routing.afterPropertiesSet();
+
+        // Defer opening the physical connection until the first statement, so a transaction
+        // begun before the shard is bound still lands on the right shard.
+        return new LazyConnectionDataSourceProxy(routing);
+    }
+}
@@ -2,7 +2,9 @@ package com.example.customers.controller;
 
 import com.example.customers.model.Customer;
 import com.example.customers.service.CustomerService;
+import com.example.customers.service.IdempotencyStore;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.ArraySchema;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
@@ -23,7 +25,10 @@ import java.util.List;
 @Tag(name = "Customers", description = "Operations related to customers")
 public class CustomerController {
 
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+
     private final CustomerService customerService;
+    private final IdempotencyStore idempotencyStore;
 
     @GetMapping
     @Operation(
@@ -53,7 +58,8 @@ public class CustomerController {
     @PostMapping
     @Operation(
         summary = "Add a customer",
-        description = "Creates a new customer and returns the saved record"
+        description = "Creates a new customer and returns the saved record. Retries sent with the same "
+            + "Idempotency-Key header replay the original response instead of creating a duplicate."
     )
     @ApiResponses({
         @ApiResponse(
@@ -61,24 +67,38 @@ public class CustomerController {
             description = "Customer created successfully",
             content = @Content(schema = @Schema(implementation = Customer.class))
         ),
-        @ApiResponse(responseCode = "400", description = "Invalid request body")
+        @ApiResponse(responseCode = "400", description = "Invalid request body"),
+        @ApiResponse(responseCode = "422", description = "Idempotency-Key reused with a different request body")
     })
-    public ResponseEntity<Customer> addCustomer(@Valid @RequestBody Customer customer) {
-        return ResponseEntity.status(HttpStatus.CREATED)
-                .body(customerService.addCustomer(customer));
+    public ResponseEntity<Customer> addCustomer(
+            @Parameter(description = "Client-generated key that makes retries of this request safe")
+            @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
+            @Valid @RequestBody Customer customer) {
+        return idempotencyStore.execute("POST /api/customers", idempotencyKey, fingerprint(customer),
+                () -> ResponseEntity.status(HttpStatus.CREATED)
+                        .body(customerService.addCustomer(customer)));
     }
 
     @PutMapping("/{id}")
-    @Operation(summary = "Update a customer", description = "Updates an existing customer by their ID")
+    @Operation(
+        summary = "Update a customer",
+        description = "Updates an existing customer by their ID. Retries sent with the same "
+            + "Idempotency-Key header replay the original response."
+    )
     @ApiResponses({
         @ApiResponse(responseCode = "200", description = "Customer updated successfully",
             content = @Content(schema = @Schema(implementation = Customer.class))),
         @ApiResponse(responseCode = "400", description = "Invalid request body"),
-        @ApiResponse(responseCode = "404", description = "Customer not found")
+        @ApiResponse(responseCode = "404", description = "Customer not found"),
+        @ApiResponse(responseCode = "422", description = "Idempotency-Key reused with a different request body")
     })
-    public ResponseEntity<Customer> updateCustomer(@PathVariable Long id,
-                                                   @Valid @RequestBody Customer customer) {
-        return ResponseEntity.ok(customerService.updateCustomer(id, customer));
+    public ResponseEntity<Customer> updateCustomer(
+            @PathVariable Long id,
+            @Parameter(description = "Client-generated key that makes retries of this request safe")
+            @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
+            @Valid @RequestBody Customer customer) {
+        return idempotencyStore.execute("PUT /api/customers/" + id, idempotencyKey, fingerprint(customer),
+                () -> ResponseEntity.ok(customerService.updateCustomer(id, customer)));
     }
 
     @DeleteMapping("/{id}")
@@ -91,4 +111,9 @@ public class CustomerController {
         customerService.deleteCustomer(id);
         return ResponseEntity.noContent().build();
     }
+
+    // The id in the body is ignored on create and update, so it is not part of the fingerprint.
+    private static String fingerprint(Customer customer) {
+        return IdempotencyStore.fingerprint(customer.getFirstName(), customer.getLastName(), customer.getEmail());
+    }
 }
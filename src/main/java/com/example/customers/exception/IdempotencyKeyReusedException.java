@@ -0,0 +1,7 @@
+package com.example.customers.exception;
+
+public class IdempotencyKeyReusedException extends RuntimeException {
+    public IdempotencyKeyReusedException(String key) {
+        super("Idempotency-Key was already used with a different request body: " + key);
+    }
+}
@@ -4,6 +4,10 @@ import com.example.customers.model.Customer;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+/**
+ * Operates on whichever shard is bound to the current thread. Use
+ * {@link ShardedCustomerRepository}, which binds the right shard for each call.
+ */
 @Repository
 public interface CustomerRepository extends JpaRepository<Customer, Long> {
     boolean existsByEmail(String email);
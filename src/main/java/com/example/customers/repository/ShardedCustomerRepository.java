@@ -0,0 +1,182 @@
+package com.example.customers.repository;
+
+import com.example.customers.model.Customer;
+import com.example.customers.sharding.ShardContext;
+import com.example.customers.sharding.SnowflakeIdGenerator;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+/**
+ * Routes {@link CustomerRepository} operations across the configured shards. New
+ * customers are placed by a hash of their email; existing customers are found
+ * through the shard encoded in their id, so a later email change does not move
+ * them. Operations that cannot be routed fan out to every shard in parallel.
+ *
+ * <p>A transaction may use only one shard, and fan-out operations may not run inside
+ * a transaction at all; both misuses throw {@link InvalidDataAccessApiUsageException}.
+ */
+@Repository
+public class ShardedCustomerRepository {
+
+    // Enough threads for several concurrent fan-outs to run side by side rather than queue.
+    private static final int FAN_OUT_THREADS_PER_SHARD = 4;
+
+    // Transaction resource key recording the shard the current transaction's connection is on.
+    private static final Object TRANSACTION_SHARD = new Object();
+
+    private final CustomerRepository customerRepository;
+    private final ExecutorService shardQueryExecutor;
+    private final int shardCount;
+
+    @Autowired
+    public ShardedCustomerRepository(CustomerRepository customerRepository,
+                                     @Value("${customers.sharding.shard-count:4}") int shardCount) {
+        this(customerRepository, newFanOutExecutor(shardCount), shardCount);
+    }
+
+    ShardedCustomerRepository(CustomerRepository customerRepository, ExecutorService shardQueryExecutor,
+                              int shardCount) {
+        this.customerRepository = customerRepository;
+        this.shardQueryExecutor = shardQueryExecutor;
+        this.shardCount = shardCount;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        shardQueryExecutor.shutdown();
+    }
+
+    /** All customers from every shard, merged in id (and therefore creation) order. Not for use inside a transaction. */
+    public List<Customer> findAll() {
+        return fanOut(CustomerRepository::findAll).stream()
+                .flatMap(List::stream)
+                .sorted(Comparator.comparing(Customer::getId))
+                .toList();
+    }
+
+    public Optional<Customer> findById(Long id) {
+        if (!isRoutable(id)) {
+            return Optional.empty();
+        }
+        return onShard(shardForId(id), repository -> repository.findById(id));
+    }
+
+    public boolean existsById(Long id) {
+        return isRoutable(id) && onShard(shardForId(id), repository -> repository.existsById(id));
+    }
+
+    /** Checks every shard, so it must not be called inside a transaction. */
+    public boolean existsByEmail(String email) {
+        return fanOut(repository -> repository.existsByEmail(email)).contains(Boolean.TRUE);
+    }
+
+    /**
+     * Inserts new customers on the shard their email hashes to and updates existing
+     * ones on the shard their id points at. Flushes immediately so the write happens
+     * while the shard is still bound.
+     */
+    public Customer save(Customer customer) {
+        int shard = customer.getId() == null ? shardForEmail(customer.getEmail()) : shardForId(customer.getId());
+        return onShard(shard, repository -> repository.saveAndFlush(customer));
+    }
+
+    public void deleteById(Long id) {
+        if (!isRoutable(id)) {
+            return;
+        }
+        onShard(shardForId(id), repository -> {
+            repository.deleteById(id);
+            repository.flush();
+            return null;
+        });
+    }
+
+    int shardForId(long id) {
+        return SnowflakeIdGenerator.shardOf(id);
+    }
+
+    int shardForEmail(String email) {
+        return Math.floorMod(email.toLowerCase(Locale.ROOT).hashCode(), shardCount);
+    }
+
+    // Ids whose encoded shard is outside the configured range were never issued here.
+    private boolean isRoutable(Long id) {
+        return id != null && shardForId(id) < shardCount;
+    }
+
+    private <T> T onShard(int shard, Function<CustomerRepository, T> work) {
+        pinTransactionToShard(shard);
+        return ShardContext.callOn(shard, () -> work.apply(customerRepository));
+    }
+
+    /**
+     * A transaction keeps the connection it opened first, so once it has used one
+     * shard any work routed to another would silently land on the first. Record the
+     * shard on the first call and fail fast on a mismatch.
+     */
+    private void pinTransactionToShard(int shard) {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()
+                || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        Integer pinned = (Integer) TransactionSynchronizationManager.getResource(TRANSACTION_SHARD);
+        if (pinned == null) {
+            TransactionSynchronizationManager.bindResource(TRANSACTION_SHARD, shard);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(TRANSACTION_SHARD);
+                }
+            });
+        } else if (pinned != shard) {
+            throw new InvalidDataAccessApiUsageException("Transaction is bound to shard " + pinned
+                    + " and cannot also use shard " + shard);
+        }
+    }
+
+    private static ExecutorService newFanOutExecutor(int shardCount) {
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("shard-query-");
+        threadFactory.setDaemon(true);
+        return Executors.newFixedThreadPool(shardCount * FAN_OUT_THREADS_PER_SHARD, threadFactory);
+    }
+
+    /**
+     * Runs {@code work} on every shard in parallel. The pool threads cannot join the
+     * caller's transaction, so calling this inside one is rejected rather than
+     * silently reading outside it.
+     */
+    private <T> List<T> fanOut(Function<CustomerRepository, T> work) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new InvalidDataAccessApiUsageException(
+                    "Cross-shard queries run outside the caller's transaction and cannot be used inside one");
+        }
+        List<CompletableFuture<T>> results = IntStream.range(0, shardCount)
+                .mapToObj(shard -> CompletableFuture.supplyAsync(() -> onShard(shard, work), shardQueryExecutor))
+                .toList();
+        try {
+            return results.stream().map(CompletableFuture::join).toList();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw ex;
+        }
+    }
+}
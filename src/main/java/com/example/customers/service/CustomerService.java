@@ -2,11 +2,14 @@ package com.example.customers.service;
 
 import com.example.customers.exception.CustomerNotFoundException;
 import com.example.customers.model.Customer;
-import com.example.customers.repository.CustomerRepository;
+import com.example.customers.repository.ShardedCustomerRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.util.List;
 
@@ -15,23 +18,61 @@ import java.util.List;
 @RequiredArgsConstructor
 public class CustomerService {
 
-    private final CustomerRepository customerRepository;
+    private static final String ALL_CUSTOMERS = "all";
+
+    private final ShardedCustomerRepository customerRepository;
+
+    // Concurrent identical reads share one in-flight query instead of each hitting the database.
+    private final SingleFlight<String, List<Customer>> customerListLoads = new SingleFlight<>();
+    private final SingleFlight<Long, Customer> customerLoads = new SingleFlight<>();
+
+    private long reportedReadLoads;
+    private long reportedCoalescedReads;
 
     public List<Customer> getAllCustomers() {
         log.info("Fetching all customers");
-        return customerRepository.findAll();
+        return customerListLoads.load(ALL_CUSTOMERS, customerRepository::findAll);
     }
 
     public Customer getCustomerById(Long id) {
         log.info("Fetching customer with id: {}", id);
-        return customerRepository.findById(id)
-                .orElseThrow(() -> new CustomerNotFoundException(id));
+        return customerLoads.load(id, () -> customerRepository.findById(id)
+                .orElseThrow(() -> new CustomerNotFoundException(id)));
+    }
+
+    /** Number of customer reads that reused another request's in-flight query. */
+    public long getCoalescedReadCount() {
+        return customerListLoads.getCoalescedCount() + customerLoads.getCoalescedCount();
+    }
+
+    /** Number of customer reads that ran their own database query. */
+    public long getReadLoadCount() {
+        return customerListLoads.getLoadCount() + customerLoads.getLoadCount();
+    }
+
+    @Scheduled(fixedDelayString = "${customers.read-coalescing.report-interval:PT1M}",
+               initialDelayString = "${customers.read-coalescing.report-interval:PT1M}")
+    public void reportReadCoalescing() {
+        long readLoads = getReadLoadCount();
+        long coalescedReads = getCoalescedReadCount();
+        if (readLoads == reportedReadLoads && coalescedReads == reportedCoalescedReads) {
+            return;
+        }
+        log.info("Customer reads: {} database loads (+{}), {} coalesced (+{})",
+                readLoads, readLoads - reportedReadLoads, coalescedReads, coalescedReads - reportedCoalescedReads);
+        reportedReadLoads = readLoads;
+        reportedCoalescedReads = coalescedReads;
     }
 
     @Transactional
     public Customer addCustomer(Customer customer) {
         log.info("Adding new customer with email: {}", customer.getEmail());
-        return customerRepository.save(customer);
+        // Ids are minted on the target shard; a client-supplied id would route the insert elsewhere.
+        customer.setId(null);
+        Customer saved = customerRepository.save(customer);
+        // A brand-new id has no reads in flight; only the list can be stale.
+        forgetInFlightReads(null);
+        return saved;
     }
 
     @Transactional
@@ -42,7 +83,9 @@ public class CustomerService {
         existing.setFirstName(customer.getFirstName());
         existing.setLastName(customer.getLastName());
         existing.setEmail(customer.getEmail());
-        return customerRepository.save(existing);
+        Customer saved = customerRepository.save(existing);
+        forgetInFlightReads(id);
+        return saved;
     }
 
     @Transactional
@@ -52,5 +95,30 @@ public class CustomerService {
             throw new CustomerNotFoundException(id);
         }
         customerRepository.deleteById(id);
+        forgetInFlightReads(id);
+    }
+
+    /**
+     * Stops reads that started before a write from being shared with reads that
+     * arrive after it. Runs again after commit, since a read started between here
+     * and the commit can still see the old row. A {@code null} id only resets the list.
+     */
+    private void forgetInFlightReads(Long id) {
+        forgetLoads(id);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    forgetLoads(id);
+                }
+            });
+        }
+    }
+
+    private void forgetLoads(Long id) {
+        if (id != null) {
+            customerLoads.forget(id);
+        }
+        customerListLoads.forget(ALL_CUSTOMERS);
     }
 }
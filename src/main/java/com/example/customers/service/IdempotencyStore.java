@@ -0,0 +1,200 @@
+package com.example.customers.service;
+
+import com.example.customers.exception.IdempotencyKeyReusedException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Remembers the outcome of requests sent with an {@code Idempotency-Key} header so
+ * that client retries replay the original result instead of repeating the write.
+ * Entries expire a configurable TTL after the original request completes, the store is capped at a maximum number
+ * of keys, and concurrent requests with the same key share a single execution.
+ */
+@Slf4j
+@Component
+public class IdempotencyStore {
+
+    // Completed entries are moved to the tail when they finish, so among completed
+    // entries map order is also expiry order: every entry shares the same TTL.
+    private final Map<String, Entry> entries = new LinkedHashMap<>();
+    private final LongAdder coalesced = new LongAdder();
+    private final Duration ttl;
+    private final int maxEntries;
+    private final Clock clock;
+
+    @Autowired
+    public IdempotencyStore(@Value("${customers.idempotency.ttl:24h}") Duration ttl,
+                            @Value("${customers.idempotency.max-entries:10000}") int maxEntries) {
+        this(ttl, maxEntries, Clock.systemUTC());
+    }
+
+    IdempotencyStore(Duration ttl, int maxEntries, Clock clock) {
+        if (ttl.isNegative() || ttl.isZero()) {
+            throw new IllegalArgumentException("Idempotency TTL must be positive: " + ttl);
+        }
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("Idempotency store must hold at least one entry: " + maxEntries);
+        }
+        this.ttl = ttl;
+        this.maxEntries = maxEntries;
+        this.clock = clock;
+    }
+
+    /**
+     * Runs {@code action} once per {@code scope} and {@code key}. Later calls with the
+     * same key replay the stored result until it expires; calls that arrive while the
+     * first is still running wait for it and receive its result or exception. Failed
+     * executions are not stored, so the client can retry them. A {@code null} or blank
+     * key bypasses the store.
+     *
+     * @throws IdempotencyKeyReusedException if the key was first used with a request
+     *                                       whose {@code fingerprint} differs
+     */
+    public <T> T execute(String scope, String key, String fingerprint, Supplier<T> action) {
+        if (key == null || key.isBlank()) {
+            return action.get();
+        }
+
+        String storeKey = scope + ":" + key;
+        Entry existing;
+        Entry entry = null;
+        synchronized (entries) {
+            Instant now = clock.instant();
+            evict(now, Integer.MAX_VALUE);
+            existing = entries.get(storeKey);
+            if (existing == null) {
+                // Only make room when adding a key, so replays never push out other results.
+                evict(now, maxEntries - 1);
+                entry = new Entry(fingerprint);
+                entries.put(storeKey, entry);
+            }
+        }
+
+        if (existing != null) {
+            if (!Objects.equals(existing.fingerprint, fingerprint)) {
+                throw new IdempotencyKeyReusedException(key);
+            }
+            if (!existing.result.isDone()) {
+                coalesced.increment();
+            }
+            log.info("Replaying result for idempotency key: {}", key);
+            return await(existing);
+        }
+
+        try {
+            T result = action.get();
+            synchronized (entries) {
+                // The TTL runs from completion; re-insert so the map stays in expiry order.
+                entry.expiresAt = clock.instant().plus(ttl);
+                if (entries.remove(storeKey, entry)) {
+                    entries.put(storeKey, entry);
+                }
+            }
+            entry.result.complete(result);
+            return result;
+        } catch (RuntimeException | Error ex) {
+            synchronized (entries) {
+                entries.remove(storeKey, entry);
+            }
+            entry.result.completeExceptionally(ex);
+            throw ex;
+        }
+    }
+
+    /** SHA-256 over the given request parts, for use as the {@code fingerprint} of {@link #execute}. */
+    public static String fingerprint(Object... parts) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 is not available", ex);
+        }
+        for (Object part : parts) {
+            // Length-prefix each part so ("ab", "c") and ("a", "bc") hash differently.
+            byte[] bytes = String.valueOf(part).getBytes(StandardCharsets.UTF_8);
+            digest.update((part == null ? "-1" : Integer.toString(bytes.length)).getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) ':');
+            digest.update(bytes);
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    /** Number of calls that waited on an execution still in flight rather than replaying a finished one. */
+    long coalescedCount() {
+        return coalesced.sum();
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T await(Entry entry) {
+        try {
+            return (T) entry.result.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (ex.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw ex;
+        }
+    }
+
+    /**
+     * Drops expired entries and, while the store holds more than {@code limit} keys,
+     * the oldest completed ones. Entries still in flight are never evicted, so a retry
+     * cannot run the action a second time; the store may briefly exceed its cap while
+     * that many requests are running. Callers must hold the lock on {@code entries}.
+     */
+    private void evict(Instant now, int limit) {
+        Iterator<Entry> oldestFirst = entries.values().iterator();
+        while (oldestFirst.hasNext()) {
+            Entry entry = oldestFirst.next();
+            if (!entry.result.isDone()) {
+                continue;
+            }
+            if (!entry.isExpired(now) && entries.size() <= limit) {
+                return;
+            }
+            oldestFirst.remove();
+        }
+    }
+
+    private static final class Entry {
+        private final String fingerprint;
+        private final CompletableFuture<Object> result = new CompletableFuture<>();
+        // Set on completion, under the lock on entries.
+        private Instant expiresAt;
+
+        private Entry(String fingerprint) {
+            this.fingerprint = fingerprint;
+        }
+
+        private boolean isExpired(Instant now) {
+            return result.isDone() && now.isAfter(expiresAt);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.customers.service;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Collapses concurrent loads of the same key into one call. The first caller runs
+ * the loader; callers that arrive while it is in flight wait on its future and get
+ * the same value or exception. Nothing is kept once the load finishes, so this is
+ * not a cache: the next call after completion loads again.
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+
+    public V load(K key, Supplier<V> loader) {
+        CompletableFuture<V> call = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, call);
+        if (existing != null) {
+            coalesced.increment();
+            return await(existing);
+        }
+
+        loads.increment();
+        try {
+            V value = loader.get();
+            call.complete(value);
+            return value;
+        } catch (RuntimeException | Error ex) {
+            call.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            inFlight.remove(key, call);
+        }
+    }
+
+    /**
+     * Detaches any load in flight for {@code key}, so the next call starts a new one
+     * instead of joining it. Call after a write that the in-flight load may predate.
+     * Callers already waiting still get the detached load's result.
+     */
+    public void forget(K key) {
+        inFlight.remove(key);
+    }
+
+    /** Number of loads that actually ran the loader. */
+    public long getLoadCount() {
+        return loads.sum();
+    }
+
+    /** Number of calls that joined a load already in flight instead of running their own. */
+    public long getCoalescedCount() {
+        return coalesced.sum();
+    }
+
+    private V await(CompletableFuture<V> call) {
+        try {
+            return call.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (ex.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw ex;
+        }
+    }
+}
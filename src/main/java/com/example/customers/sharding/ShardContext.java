@@ -0,0 +1,44 @@
+package com.example.customers.sharding;
+
+import java.util.function.Supplier;
+
+/**
+ * Holds the shard that database work on the current thread is routed to. Read by
+ * {@link ShardRoutingDataSource} when a connection is opened and by
+ * {@link SnowflakeIdGenerator} when a new customer id is minted.
+ */
+public final class ShardContext {
+
+    private static final ThreadLocal<Integer> CURRENT = new ThreadLocal<>();
+
+    private ShardContext() {
+    }
+
+    /** Runs {@code work} with the current thread bound to {@code shard}, restoring the previous binding afterwards. */
+    public static <T> T callOn(int shard, Supplier<T> work) {
+        Integer previous = CURRENT.get();
+        CURRENT.set(shard);
+        try {
+            return work.get();
+        } finally {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+
+    /** The shard bound to the current thread, or {@code null} if there is none. */
+    public static Integer current() {
+        return CURRENT.get();
+    }
+
+    public static int requireCurrent() {
+        Integer shard = CURRENT.get();
+        if (shard == null) {
+            throw new IllegalStateException("No shard bound to the current thread");
+        }
+        return shard;
+    }
+}
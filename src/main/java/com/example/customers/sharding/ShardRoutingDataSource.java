@@ -0,0 +1,16 @@
+package com.example.customers.sharding;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+/**
+ * Picks the shard DataSource bound in {@link ShardContext}. Connections opened with
+ * no shard bound, such as Hibernate's startup metadata lookup, go to the default
+ * target.
+ */
+public class ShardRoutingDataSource extends AbstractRoutingDataSource {
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return ShardContext.current();
+    }
+}
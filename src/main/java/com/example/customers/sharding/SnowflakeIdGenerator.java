@@ -0,0 +1,94 @@
+package com.example.customers.sharding;
+
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.IdentifierGenerator;
+
+import java.time.Instant;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Snowflake-style id generator. Each id packs the milliseconds since {@link #EPOCH},
+ * the shard the row is stored on, and a per-shard sequence, so ids are unique across
+ * shards without coordination and the owning shard can be read back from the id.
+ * The layout is kept within 53 bits so ids stay exact as JSON numbers in JavaScript
+ * clients.
+ *
+ * <p>There are no node or worker bits: ids are unique only while a single application
+ * instance writes to each shard, because the per-shard sequence lives in this JVM.
+ * Running several instances against the same shards needs node bits carved out of
+ * the layout first. Across restarts, {@link #advancePast} must be called with each
+ * shard's highest stored id so ids minted ahead of the wall clock are not reissued.
+ */
+public class SnowflakeIdGenerator implements IdentifierGenerator {
+
+    static final long EPOCH = Instant.parse("2024-01-01T00:00:00Z").toEpochMilli();
+    static final int SHARD_BITS = 6;
+    static final int SEQUENCE_BITS = 6;
+
+    public static final int MAX_SHARDS = 1 << SHARD_BITS;
+    private static final long MAX_SEQUENCE = (1L << SEQUENCE_BITS) - 1;
+
+    // Static so every generator instance Hibernate creates shares one sequence per shard.
+    private static final ConcurrentMap<Integer, ShardSequence> SEQUENCES = new ConcurrentHashMap<>();
+
+    @Override
+    public Object generate(SharedSessionContractImplementor session, Object object) {
+        return nextId(ShardContext.requireCurrent());
+    }
+
+    public static long nextId(int shard) {
+        if (shard < 0 || shard >= MAX_SHARDS) {
+            throw new IllegalArgumentException("Shard must be between 0 and " + (MAX_SHARDS - 1) + ": " + shard);
+        }
+        return SEQUENCES.computeIfAbsent(shard, ShardSequence::new).next();
+    }
+
+    public static int shardOf(long id) {
+        return (int) ((id >>> SEQUENCE_BITS) & (MAX_SHARDS - 1));
+    }
+
+    /** Makes every later id for the shard encoded in {@code id} greater than {@code id}. */
+    public static void advancePast(long id) {
+        long timestamp = (id >>> (SHARD_BITS + SEQUENCE_BITS)) + EPOCH;
+        SEQUENCES.computeIfAbsent(shardOf(id), ShardSequence::new).advancePast(timestamp, id & MAX_SEQUENCE);
+    }
+
+    private static final class ShardSequence {
+        private final int shard;
+        private long lastTimestamp = -1;
+        private long sequence;
+
+        private ShardSequence(int shard) {
+            this.shard = shard;
+        }
+
+        private synchronized void advancePast(long timestamp, long lastSequence) {
+            if (timestamp > lastTimestamp || (timestamp == lastTimestamp && lastSequence > sequence)) {
+                lastTimestamp = timestamp;
+                sequence = lastSequence;
+            }
+        }
+
+        /**
+         * Never moves backwards: if the clock steps back, or the sequence for the
+         * current millisecond runs out, ids borrow from the next millisecond instead
+         * of blocking.
+         */
+        private synchronized long next() {
+            long timestamp = Math.max(System.currentTimeMillis(), lastTimestamp);
+            if (timestamp == lastTimestamp) {
+                sequence = (sequence + 1) & MAX_SEQUENCE;
+                if (sequence == 0) {
+                    timestamp++;
+                }
+            } else {
+                sequence = 0;
+            }
+            lastTimestamp = timestamp;
+            return ((timestamp - EPOCH) << (SHARD_BITS + SEQUENCE_BITS))
+                    | ((long) shard << SEQUENCE_BITS)
+                    | sequence;
+        }
+    }
+}
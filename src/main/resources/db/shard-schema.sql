@@ -0,0 +1,8 @@
+CREATE TABLE IF NOT EXISTS customers (
+    id         BIGINT       NOT NULL PRIMARY KEY,
+    first_name VARCHAR(255) NOT NULL,
+    last_name  VARCHAR(255) NOT NULL,
+    email      VARCHAR(255) NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_customers_email ON customers (email);
@@ -3,11 +3,13 @@ package com.example.customers.controller;
 import com.example.customers.exception.CustomerNotFoundException;
 import com.example.customers.model.Customer;
 import com.example.customers.service.CustomerService;
+import com.example.customers.service.IdempotencyStore;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
@@ -21,6 +23,7 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @WebMvcTest(CustomerController.class)
+@Import(IdempotencyStore.class)
 class CustomerControllerTest {
 
     @Autowired
@@ -123,6 +126,92 @@ class CustomerControllerTest {
         verifyNoMoreInteractions(customerService);
     }
 
+    @Test
+    @DisplayName("POST /api/customers with a repeated Idempotency-Key replays the first response")
+    void addCustomer_replaysResponse_whenIdempotencyKeyRepeated() throws Exception {
+        Customer saved = new Customer(6L, "Finn", "Gray", "finn@example.com");
+        when(customerService.addCustomer(any(Customer.class))).thenReturn(saved);
+
+        String requestBody = """
+                {
+                    "firstName": "Finn",
+                    "lastName": "Gray",
+                    "email": "finn@example.com"
+                }
+                """;
+
+        for (int attempt = 0; attempt < 2; attempt++) {
+            mockMvc.perform(post("/api/customers")
+                    .header(CustomerController.IDEMPOTENCY_KEY_HEADER, "create-finn")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(requestBody))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.id", is(6)))
+                .andExpect(jsonPath("$.email", is("finn@example.com")));
+        }
+
+        verify(customerService, times(1)).addCustomer(any(Customer.class));
+    }
+
+    @Test
+    @DisplayName("POST /api/customers with different Idempotency-Keys creates each customer")
+    void addCustomer_callsServiceForEachKey_whenIdempotencyKeysDiffer() throws Exception {
+        Customer saved = new Customer(7L, "Gina", "Hall", "gina@example.com");
+        when(customerService.addCustomer(any(Customer.class))).thenReturn(saved);
+
+        String requestBody = """
+                {
+                    "firstName": "Gina",
+                    "lastName": "Hall",
+                    "email": "gina@example.com"
+                }
+                """;
+
+        for (String key : List.of("create-gina-1", "create-gina-2")) {
+            mockMvc.perform(post("/api/customers")
+                    .header(CustomerController.IDEMPOTENCY_KEY_HEADER, key)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(requestBody))
+                .andExpect(status().isCreated());
+        }
+
+        verify(customerService, times(2)).addCustomer(any(Customer.class));
+    }
+
+    @Test
+    @DisplayName("POST /api/customers returns 422 when an Idempotency-Key is reused with a different body")
+    void addCustomer_returns422_whenIdempotencyKeyReusedWithDifferentBody() throws Exception {
+        Customer saved = new Customer(8L, "Hana", "Ito", "hana@example.com");
+        when(customerService.addCustomer(any(Customer.class))).thenReturn(saved);
+
+        mockMvc.perform(post("/api/customers")
+                .header(CustomerController.IDEMPOTENCY_KEY_HEADER, "create-hana")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("""
+                        {
+                            "firstName": "Hana",
+                            "lastName": "Ito",
+                            "email": "hana@example.com"
+                        }
+                        """))
+            .andExpect(status().isCreated());
+
+        mockMvc.perform(post("/api/customers")
+                .header(CustomerController.IDEMPOTENCY_KEY_HEADER, "create-hana")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("""
+                        {
+                            "firstName": "Ivan",
+                            "lastName": "Petrov",
+                            "email": "ivan@example.com"
+                        }
+                        """))
+            .andExpect(status().isUnprocessableEntity())
+            .andExpect(jsonPath("$.error", containsString("create-hana")));
+
+        verify(customerService, times(1)).addCustomer(any(Customer.class));
+    }
+
     // --- GET /api/customers/{id} ---
 
     @Test
@@ -199,6 +288,57 @@ class CustomerControllerTest {
             .andExpect(jsonPath("$.error", containsString("99")));
     }
 
+    @Test
+    @DisplayName("PUT /api/customers/{id} with a repeated Idempotency-Key replays the first response")
+    void updateCustomer_replaysResponse_whenIdempotencyKeyRepeated() throws Exception {
+        Customer updated = new Customer(2L, "Robert", "Jones", "robert@example.com");
+        when(customerService.updateCustomer(eq(2L), any(Customer.class))).thenReturn(updated);
+
+        String requestBody = """
+                {
+                    "firstName": "Robert",
+                    "lastName": "Jones",
+                    "email": "robert@example.com"
+                }
+                """;
+
+        for (int attempt = 0; attempt < 2; attempt++) {
+            mockMvc.perform(put("/api/customers/2")
+                    .header(CustomerController.IDEMPOTENCY_KEY_HEADER, "rename-bob")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(requestBody))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.firstName", is("Robert")));
+        }
+
+        verify(customerService, times(1)).updateCustomer(eq(2L), any(Customer.class));
+    }
+
+    @Test
+    @DisplayName("PUT /api/customers/{id} with an Idempotency-Key retries after a failure")
+    void updateCustomer_retriesAfterFailure_whenIdempotencyKeyRepeated() throws Exception {
+        when(customerService.updateCustomer(eq(98L), any(Customer.class)))
+                .thenThrow(new CustomerNotFoundException(98L));
+
+        String requestBody = """
+                {
+                    "firstName": "X",
+                    "lastName": "Y",
+                    "email": "x@y.com"
+                }
+                """;
+
+        for (int attempt = 0; attempt < 2; attempt++) {
+            mockMvc.perform(put("/api/customers/98")
+                    .header(CustomerController.IDEMPOTENCY_KEY_HEADER, "missing-customer")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(requestBody))
+                .andExpect(status().isNotFound());
+        }
+
+        verify(customerService, times(2)).updateCustomer(eq(98L), any(Customer.class));
+    }
+
     // --- DELETE /api/customers/{id} ---
 
     @Test
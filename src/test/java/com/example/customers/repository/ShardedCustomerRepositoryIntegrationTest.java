@@ -0,0 +1,136 @@
+package com.example.customers.repository;
+
+import com.example.customers.model.Customer;
+import com.example.customers.service.CustomerService;
+import com.example.customers.sharding.SnowflakeIdGenerator;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Exercises the real routing DataSource, lazy connection proxy, id generator and
+ * service transactions together, checking each shard's database directly.
+ */
+@SpringBootTest
+class ShardedCustomerRepositoryIntegrationTest {
+
+    @Value("${customers.sharding.shard-count}")
+    private int shardCount;
+
+    @Value("${customers.sharding.url-template}")
+    private String urlTemplate;
+
+    @Value("${spring.datasource.username}")
+    private String username;
+
+    @Value("${spring.datasource.password}")
+    private String password;
+
+    @Autowired
+    private CustomerService customerService;
+
+    @Autowired
+    private ShardedCustomerRepository shardedRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    @DisplayName("addCustomer stores the row only on the shard encoded in its id")
+    void addCustomer_storesRowOnShardInId() {
+        String email = uniqueEmail();
+
+        Customer saved = customerService.addCustomer(new Customer("Ada", "Lovelace", email));
+
+        int shard = SnowflakeIdGenerator.shardOf(saved.getId());
+        assertThat(shard).isEqualTo(shardedRepository.shardForEmail(email));
+        assertThat(shardsContaining(saved.getId())).containsExactly(shard);
+        assertThat(customerService.getCustomerById(saved.getId()).getEmail()).isEqualTo(email);
+    }
+
+    @Test
+    @DisplayName("updateCustomer and deleteCustomer act on the shard encoded in the id")
+    void updateAndDelete_actOnShardInId() {
+        Customer saved = customerService.addCustomer(new Customer("Grace", "Hopper", uniqueEmail()));
+        int shard = SnowflakeIdGenerator.shardOf(saved.getId());
+        String movedEmail = uniqueEmailOffShard(shard);
+
+        customerService.updateCustomer(saved.getId(), new Customer("Grace", "Hopper", movedEmail));
+
+        assertThat(shardsContaining(saved.getId())).containsExactly(shard);
+        assertThat(shard(shard).queryForObject("SELECT email FROM customers WHERE id = ?", String.class,
+                saved.getId())).isEqualTo(movedEmail);
+
+        customerService.deleteCustomer(saved.getId());
+
+        assertThat(shardsContaining(saved.getId())).isEmpty();
+    }
+
+    @Test
+    @DisplayName("a transaction that has used one shard cannot route work to another")
+    void transaction_failsFast_whenCrossingShards() {
+        Customer existing = customerService.addCustomer(new Customer("Alan", "Turing", uniqueEmail()));
+        String otherShardEmail = uniqueEmailOffShard(SnowflakeIdGenerator.shardOf(existing.getId()));
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+
+        assertThatThrownBy(() -> transaction.executeWithoutResult(status -> {
+            shardedRepository.findById(existing.getId());
+            shardedRepository.save(new Customer("Kurt", "Godel", otherShardEmail));
+        }))
+                .isInstanceOf(InvalidDataAccessApiUsageException.class)
+                .hasMessageContaining("cannot also use shard");
+
+        assertThat(shardedRepository.existsByEmail(otherShardEmail)).isFalse();
+    }
+
+    @Test
+    @DisplayName("a cross-shard query cannot run inside a transaction")
+    void fanOut_failsFast_insideTransaction() {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+
+        assertThatThrownBy(() -> transaction.executeWithoutResult(status -> shardedRepository.existsByEmail(uniqueEmail())))
+                .isInstanceOf(InvalidDataAccessApiUsageException.class)
+                .hasMessageContaining("Cross-shard");
+    }
+
+    private List<Integer> shardsContaining(long id) {
+        List<Integer> shards = new ArrayList<>();
+        for (int shard = 0; shard < shardCount; shard++) {
+            Integer rows = shard(shard).queryForObject("SELECT COUNT(*) FROM customers WHERE id = ?", Integer.class, id);
+            if (rows != null && rows > 0) {
+                shards.add(shard);
+            }
+        }
+        return shards;
+    }
+
+    private JdbcTemplate shard(int shard) {
+        return new JdbcTemplate(new DriverManagerDataSource(String.format(urlTemplate, shard), username, password));
+    }
+
+    private String uniqueEmailOffShard(int shard) {
+        String email = uniqueEmail();
+        while (shardedRepository.shardForEmail(email) == shard) {
+            email = uniqueEmail();
+        }
+        return email;
+    }
+
+    private static String uniqueEmail() {
+        return "user-" + UUID.randomUUID() + "@example.com";
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.customers.repository;
+
+import com.example.customers.model.Customer;
+import com.example.customers.sharding.ShardContext;
+import com.example.customers.sharding.SnowflakeIdGenerator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ShardedCustomerRepositoryTest {
+
+    private static final int SHARD_COUNT = 4;
+
+    @Mock
+    private CustomerRepository customerRepository;
+
+    private ExecutorService executor;
+    private ShardedCustomerRepository shardedRepository;
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newFixedThreadPool(SHARD_COUNT);
+        shardedRepository = new ShardedCustomerRepository(customerRepository, executor, SHARD_COUNT);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("findAll queries every shard and merges the results in id order")
+    void findAll_mergesShardsInIdOrder() {
+        when(customerRepository.findAll()).thenAnswer(invocation -> {
+            int shard = ShardContext.requireCurrent();
+            long id = SnowflakeIdGenerator.nextId(shard);
+            return List.of(new Customer(id, "First" + shard, "Last" + shard, shard + "@example.com"));
+        });
+
+        List<Customer> result = shardedRepository.findAll();
+
+        assertThat(result).hasSize(SHARD_COUNT);
+        assertThat(result).extracting(Customer::getId).isSorted();
+        assertThat(result).extracting(Customer::getEmail)
+                .containsExactlyInAnyOrder("0@example.com", "1@example.com", "2@example.com", "3@example.com");
+        verify(customerRepository, times(SHARD_COUNT)).findAll();
+    }
+
+    @Test
+    @DisplayName("findById queries only the shard encoded in the id")
+    void findById_routesToShardInId() {
+        long id = SnowflakeIdGenerator.nextId(2);
+        Customer customer = new Customer(id, "Alice", "Smith", "alice@example.com");
+        when(customerRepository.findById(id)).thenAnswer(invocation -> {
+            assertThat(ShardContext.current()).isEqualTo(2);
+            return Optional.of(customer);
+        });
+
+        assertThat(shardedRepository.findById(id)).contains(customer);
+        assertThat(ShardContext.current()).isNull();
+    }
+
+    @Test
+    @DisplayName("findById returns empty without a query when the id names an unknown shard")
+    void findById_returnsEmpty_whenShardOutOfRange() {
+        long id = SnowflakeIdGenerator.nextId(SHARD_COUNT);
+
+        assertThat(shardedRepository.findById(id)).isEmpty();
+        assertThat(shardedRepository.existsById(id)).isFalse();
+        verifyNoInteractions(customerRepository);
+    }
+
+    @Test
+    @DisplayName("save places a new customer on the shard its email hashes to")
+    void save_routesNewCustomerByEmail() {
+        Customer customer = new Customer("Dave", "Brown", "dave@example.com");
+        int expectedShard = shardedRepository.shardForEmail("dave@example.com");
+        when(customerRepository.saveAndFlush(any(Customer.class))).thenAnswer(invocation -> {
+            assertThat(ShardContext.current()).isEqualTo(expectedShard);
+            return customer;
+        });
+
+        shardedRepository.save(customer);
+
+        verify(customerRepository).saveAndFlush(customer);
+    }
+
+    @Test
+    @DisplayName("save keeps an existing customer on the shard encoded in its id")
+    void save_routesExistingCustomerById() {
+        long id = SnowflakeIdGenerator.nextId(1);
+        Customer customer = new Customer(id, "Alicia", "Smith", "alicia@example.com");
+        when(customerRepository.saveAndFlush(customer)).thenAnswer(invocation -> {
+            assertThat(ShardContext.current()).isEqualTo(1);
+            return customer;
+        });
+
+        shardedRepository.save(customer);
+
+        verify(customerRepository).saveAndFlush(customer);
+    }
+
+    @Test
+    @DisplayName("existsByEmail checks every shard")
+    void existsByEmail_checksAllShards() {
+        when(customerRepository.existsByEmail("bob@example.com"))
+                .thenAnswer(invocation -> ShardContext.requireCurrent() == 3);
+
+        assertThat(shardedRepository.existsByEmail("bob@example.com")).isTrue();
+        verify(customerRepository, times(SHARD_COUNT)).existsByEmail("bob@example.com");
+    }
+}
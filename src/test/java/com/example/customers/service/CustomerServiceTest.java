@@ -2,7 +2,7 @@ package com.example.customers.service;
 
 import com.example.customers.exception.CustomerNotFoundException;
 import com.example.customers.model.Customer;
-import com.example.customers.repository.CustomerRepository;
+import com.example.customers.repository.ShardedCustomerRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -13,6 +13,11 @@ import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
@@ -23,7 +28,7 @@ import static org.mockito.Mockito.*;
 class CustomerServiceTest {
 
     @Mock
-    private CustomerRepository customerRepository;
+    private ShardedCustomerRepository customerRepository;
 
     @InjectMocks
     private CustomerService customerService;
@@ -125,6 +130,80 @@ class CustomerServiceTest {
                 .hasMessageContaining("99");
     }
 
+    @Test
+    @DisplayName("getCustomerById shares one repository query between concurrent callers")
+    void getCustomerById_coalescesConcurrentReads() throws Exception {
+        Customer customer = new Customer(1L, "Alice", "Smith", "alice@example.com");
+        CountDownLatch release = new CountDownLatch(1);
+        when(customerRepository.findById(1L)).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return Optional.of(customer);
+        });
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<Customer> leader = executor.submit(() -> customerService.getCustomerById(1L));
+            awaitReadLoads(1);
+            Future<Customer> follower = executor.submit(() -> customerService.getCustomerById(1L));
+            awaitCoalescedReads(1);
+
+            release.countDown();
+
+            assertThat(leader.get(5, TimeUnit.SECONDS)).isSameAs(customer);
+            assertThat(follower.get(5, TimeUnit.SECONDS)).isSameAs(customer);
+        } finally {
+            executor.shutdownNow();
+        }
+        verify(customerRepository, times(1)).findById(1L);
+    }
+
+    @Test
+    @DisplayName("getCustomerById queries again after a failed load")
+    void getCustomerById_queriesAgain_afterFailure() {
+        Customer customer = new Customer(1L, "Alice", "Smith", "alice@example.com");
+        when(customerRepository.findById(1L))
+                .thenThrow(new IllegalStateException("database unavailable"))
+                .thenReturn(Optional.of(customer));
+
+        assertThatThrownBy(() -> customerService.getCustomerById(1L))
+                .isInstanceOf(IllegalStateException.class);
+        assertThat(customerService.getCustomerById(1L)).isSameAs(customer);
+
+        verify(customerRepository, times(2)).findById(1L);
+        assertThat(customerService.getCoalescedReadCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("getCustomerById does not join a load that started before a delete")
+    void getCustomerById_queriesAgain_afterDelete() throws Exception {
+        Customer customer = new Customer(1L, "Alice", "Smith", "alice@example.com");
+        CountDownLatch release = new CountDownLatch(1);
+        when(customerRepository.findById(1L))
+                .thenAnswer(invocation -> {
+                    release.await(5, TimeUnit.SECONDS);
+                    return Optional.of(customer);
+                })
+                .thenReturn(Optional.empty());
+        when(customerRepository.existsById(1L)).thenReturn(true);
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Customer> staleRead = executor.submit(() -> customerService.getCustomerById(1L));
+            awaitReadLoads(1);
+
+            customerService.deleteCustomer(1L);
+
+            assertThatThrownBy(() -> customerService.getCustomerById(1L))
+                    .isInstanceOf(CustomerNotFoundException.class);
+            release.countDown();
+            assertThat(staleRead.get(5, TimeUnit.SECONDS)).isSameAs(customer);
+        } finally {
+            executor.shutdownNow();
+        }
+        verify(customerRepository, times(2)).findById(1L);
+        assertThat(customerService.getCoalescedReadCount()).isZero();
+    }
+
     // --- updateCustomer ---
 
     @Test
@@ -181,4 +260,20 @@ class CustomerServiceTest {
 
         verify(customerRepository, never()).deleteById(any());
     }
+
+    private void awaitReadLoads(long expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (customerService.getReadLoadCount() < expected && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertThat(customerService.getReadLoadCount()).isGreaterThanOrEqualTo(expected);
+    }
+
+    private void awaitCoalescedReads(long expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (customerService.getCoalescedReadCount() < expected && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertThat(customerService.getCoalescedReadCount()).isGreaterThanOrEqualTo(expected);
+    }
 }
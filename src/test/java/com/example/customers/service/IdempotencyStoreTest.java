@@ -0,0 +1,240 @@
+package com.example.customers.service;
+
+import com.example.customers.exception.IdempotencyKeyReusedException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class IdempotencyStoreTest {
+
+    private MutableClock clock;
+    private IdempotencyStore store;
+
+    @BeforeEach
+    void setUp() {
+        clock = new MutableClock(Instant.parse("2024-01-01T00:00:00Z"));
+        store = new IdempotencyStore(Duration.ofMinutes(10), 2, clock);
+    }
+
+    @Test
+    @DisplayName("execute replays the stored result for a repeated key")
+    void execute_replaysResult_whenKeyRepeated() {
+        AtomicInteger calls = new AtomicInteger();
+
+        String first = store.execute("POST", "k1", "body", () -> "result-" + calls.incrementAndGet());
+        String second = store.execute("POST", "k1", "body", () -> "result-" + calls.incrementAndGet());
+
+        assertThat(first).isEqualTo("result-1");
+        assertThat(second).isEqualTo("result-1");
+        assertThat(calls).hasValue(1);
+    }
+
+    @Test
+    @DisplayName("execute keeps keys from different scopes apart")
+    void execute_runsAgain_whenScopeDiffers() {
+        AtomicInteger calls = new AtomicInteger();
+
+        store.execute("PUT /1", "k1", "body", calls::incrementAndGet);
+        store.execute("PUT /2", "k1", "body", calls::incrementAndGet);
+
+        assertThat(calls).hasValue(2);
+    }
+
+    @Test
+    @DisplayName("execute bypasses the store when no key is given")
+    void execute_runsEveryTime_whenKeyMissing() {
+        AtomicInteger calls = new AtomicInteger();
+
+        store.execute("POST", null, "body", calls::incrementAndGet);
+        store.execute("POST", " ", "body", calls::incrementAndGet);
+
+        assertThat(calls).hasValue(2);
+        assertThat(store.size()).isZero();
+    }
+
+    @Test
+    @DisplayName("execute runs the action again once the stored result has expired")
+    void execute_runsAgain_whenEntryExpired() {
+        AtomicInteger calls = new AtomicInteger();
+
+        store.execute("POST", "k1", "body", calls::incrementAndGet);
+        clock.advance(Duration.ofMinutes(11));
+        Integer result = store.execute("POST", "k1", "body", calls::incrementAndGet);
+
+        assertThat(result).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("execute does not store failures so the client can retry")
+    void execute_doesNotStoreFailure() {
+        assertThatThrownBy(() -> store.execute("POST", "k1", "body", () -> {
+            throw new IllegalStateException("boom");
+        })).isInstanceOf(IllegalStateException.class);
+
+        assertThat(store.size()).isZero();
+        assertThat(store.execute("POST", "k1", "body", () -> "ok")).isEqualTo("ok");
+    }
+
+    @Test
+    @DisplayName("execute rejects a key reused with a different request body")
+    void execute_rejectsReusedKey_whenFingerprintDiffers() {
+        AtomicInteger calls = new AtomicInteger();
+
+        store.execute("POST", "k1", IdempotencyStore.fingerprint("Alice"), calls::incrementAndGet);
+
+        assertThatThrownBy(() -> store.execute("POST", "k1", IdempotencyStore.fingerprint("Bob"), calls::incrementAndGet))
+                .isInstanceOf(IdempotencyKeyReusedException.class)
+                .hasMessageContaining("k1");
+        assertThat(calls).hasValue(1);
+    }
+
+    @Test
+    @DisplayName("fingerprint distinguishes how the parts are split")
+    void fingerprint_dependsOnPartBoundaries() {
+        assertThat(IdempotencyStore.fingerprint("ab", "c")).isNotEqualTo(IdempotencyStore.fingerprint("a", "bc"));
+        assertThat(IdempotencyStore.fingerprint("a", null)).isNotEqualTo(IdempotencyStore.fingerprint("a", "null"));
+        assertThat(IdempotencyStore.fingerprint("a", "b")).isEqualTo(IdempotencyStore.fingerprint("a", "b"));
+    }
+
+    @Test
+    @DisplayName("execute evicts the oldest entries when the store is full")
+    void execute_evictsOldest_whenFull() {
+        AtomicInteger calls = new AtomicInteger();
+
+        store.execute("POST", "k1", "body", calls::incrementAndGet);
+        store.execute("POST", "k2", "body", calls::incrementAndGet);
+        store.execute("POST", "k3", "body", calls::incrementAndGet);
+
+        assertThat(store.size()).isEqualTo(2);
+        assertThat(store.execute("POST", "k3", "body", calls::incrementAndGet)).isEqualTo(3);
+        assertThat(store.execute("POST", "k1", "body", calls::incrementAndGet)).isEqualTo(4);
+    }
+
+    @Test
+    @DisplayName("execute never evicts an entry that is still in flight")
+    void execute_keepsInFlightEntry_whenFull() throws Exception {
+        IdempotencyStore singleEntryStore = new IdempotencyStore(Duration.ofMinutes(10), 1, clock);
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Integer> inFlight = executor.submit(() -> singleEntryStore.execute("POST", "k1", "body", () -> {
+                started.countDown();
+                await(release);
+                return calls.incrementAndGet();
+            }));
+            assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+            singleEntryStore.execute("POST", "k2", "body", () -> 0);
+            release.countDown();
+
+            assertThat(inFlight.get(5, TimeUnit.SECONDS)).isEqualTo(1);
+            assertThat(singleEntryStore.execute("POST", "k1", "body", calls::incrementAndGet)).isEqualTo(1);
+            assertThat(calls).hasValue(1);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("execute coalesces concurrent requests with the same key")
+    void execute_coalescesConcurrentRequests() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<Integer> leader = executor.submit(() -> store.execute("POST", "k1", "body", () -> {
+                started.countDown();
+                await(release);
+                return calls.incrementAndGet();
+            }));
+            assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+            Future<Integer> follower = executor.submit(() -> store.execute("POST", "k1", "body", calls::incrementAndGet));
+            awaitCoalesced(1);
+
+            release.countDown();
+
+            assertThat(leader.get(5, TimeUnit.SECONDS)).isEqualTo(1);
+            assertThat(follower.get(5, TimeUnit.SECONDS)).isEqualTo(1);
+            assertThat(calls).hasValue(1);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("execute keeps the result for the full TTL after a slow request completes")
+    void execute_startsTtlAtCompletion() {
+        AtomicInteger calls = new AtomicInteger();
+
+        store.execute("POST", "k1", "body", () -> {
+            clock.advance(Duration.ofMinutes(8));
+            return calls.incrementAndGet();
+        });
+        clock.advance(Duration.ofMinutes(5));
+
+        assertThat(store.execute("POST", "k1", "body", calls::incrementAndGet)).isEqualTo(1);
+        clock.advance(Duration.ofMinutes(6));
+        assertThat(store.execute("POST", "k1", "body", calls::incrementAndGet)).isEqualTo(2);
+    }
+
+    private void awaitCoalesced(long expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (store.coalescedCount() < expected && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertThat(store.coalescedCount()).isEqualTo(expected);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant now;
+
+        private MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
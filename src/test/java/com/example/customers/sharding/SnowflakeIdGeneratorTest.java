@@ -0,0 +1,74 @@
+package com.example.customers.sharding;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SnowflakeIdGeneratorTest {
+
+    @Test
+    @DisplayName("nextId encodes the shard so it can be read back")
+    void nextId_encodesShard() {
+        for (int shard = 0; shard < SnowflakeIdGenerator.MAX_SHARDS; shard++) {
+            assertThat(SnowflakeIdGenerator.shardOf(SnowflakeIdGenerator.nextId(shard))).isEqualTo(shard);
+        }
+    }
+
+    @Test
+    @DisplayName("nextId returns unique, increasing ids within a shard")
+    void nextId_isUniqueAndIncreasing() {
+        Set<Long> ids = new HashSet<>();
+        long previous = -1;
+        for (int i = 0; i < 10_000; i++) {
+            long id = SnowflakeIdGenerator.nextId(5);
+            assertThat(id).isGreaterThan(previous);
+            ids.add(id);
+            previous = id;
+        }
+        assertThat(ids).hasSize(10_000);
+    }
+
+    @Test
+    @DisplayName("nextId stays within the range JavaScript numbers represent exactly")
+    void nextId_fitsInJavaScriptSafeInteger() {
+        assertThat(SnowflakeIdGenerator.nextId(SnowflakeIdGenerator.MAX_SHARDS - 1))
+                .isPositive()
+                .isLessThanOrEqualTo((1L << 53) - 1);
+    }
+
+    @Test
+    @DisplayName("advancePast makes later ids exceed an id minted ahead of the clock")
+    void advancePast_skipsIdsAlreadyIssued() {
+        long aheadOfClock = SnowflakeIdGenerator.nextId(9)
+                + (60_000L << (SnowflakeIdGenerator.SHARD_BITS + SnowflakeIdGenerator.SEQUENCE_BITS));
+
+        SnowflakeIdGenerator.advancePast(aheadOfClock);
+
+        long next = SnowflakeIdGenerator.nextId(9);
+        assertThat(next).isGreaterThan(aheadOfClock);
+        assertThat(SnowflakeIdGenerator.shardOf(next)).isEqualTo(9);
+    }
+
+    @Test
+    @DisplayName("nextId rejects shards outside the encodable range")
+    void nextId_rejectsUnknownShard() {
+        assertThatThrownBy(() -> SnowflakeIdGenerator.nextId(SnowflakeIdGenerator.MAX_SHARDS))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    @DisplayName("generate requires a shard bound to the current thread")
+    void generate_requiresBoundShard() {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator();
+
+        assertThatThrownBy(() -> generator.generate(null, null))
+                .isInstanceOf(IllegalStateException.class);
+        assertThat(ShardContext.callOn(3, () -> SnowflakeIdGenerator.shardOf((Long) generator.generate(null, null))))
+                .isEqualTo(3);
+    }
+}